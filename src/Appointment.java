@@ -1,6 +1,8 @@
 //Class: Appointment
 // This class represents a scheduled meeting between a patient
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.TreeMap;
 
 
@@ -28,6 +30,9 @@ public class Appointment{
 
     private TreeMap<String, Appointment> appointments;
 
+    //Receives a change event from each setter (null when no event stream is attached)
+    private ClinicEventPublisher events;
+
 
     //Constructor
     public Appointment(int appointmentId, String time, String reason, Patient patient, Doctor doctor, LocalDate date, String status ){
@@ -62,15 +67,42 @@ public class Appointment{
         return doctor;
     }
 
+    //Date and time of the visit
+    public LocalDateTime getDateTime(){
+        return date.atTime(parseTime(time));
+    }
+
+    //Appointment times are free text like "10:30"; unreadable times count as the start of the day
+    public static LocalTime parseTime(String time){
+        try {
+            String[] parts = time.trim().split(":");
+            return LocalTime.of(Integer.parseInt(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0);
+        } catch (RuntimeException e) {
+            return LocalTime.MIDNIGHT;
+        }
+    }
+
     //Setters or mutators
     public void setDate(LocalDate date){
         this.date = date;
+        if (events != null) {
+            events.publish("AppointmentDateChanged", appointmentId, date.toString());
+        }
     }
     public void setTime(String time){
         this.time = time;
+        if (events != null) {
+            events.publish("AppointmentTimeChanged", appointmentId, time);
+        }
     }
     public void setStatus(String status){
         this.status = status;
+        if (events != null) {
+            events.publish("AppointmentStatusChanged", appointmentId, status);
+        }
+    }
+    public void setEventPublisher(ClinicEventPublisher events){
+        this.events = events;
     }
     @Override
     public String toString() {
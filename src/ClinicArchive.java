@@ -0,0 +1,377 @@
+// Class: ClinicArchive
+// Cold storage for old appointments and medical records: rows are kept in compressed
+// segment files, one per kind and month (e.g. "appointments-2025-08.seg.gz"), and a small
+// index records which dates each segment covers. Segments are read back only when a query needs them
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class ClinicArchive {
+
+    public static final String APPOINTMENTS = "appointments";
+    public static final String RECORDS = "records";
+
+    // Columns per row of each kind
+    // appointments: appointmentId,date,time,patientId,doctorId,reason,status
+    // records: recordId,date,patientId,diagnosis,treatmentNotes,doctorNotes,prescriptions
+    public static final int APPOINTMENT_COLUMNS = 7;
+    public static final int RECORD_COLUMNS = 7;
+
+    // Folder holding the segment files and index.txt
+    private File directory;
+
+    // Sparse index: one entry per segment (key "appointments-2025-08") holding its date range
+    // and the patients it mentions, never one entry per row
+    private TreeMap<String, Segment> segments;
+
+    // Recently read segments, least recently used first
+    private LinkedHashMap<String, ArrayList<String[]>> cache;
+    private int maxCachedSegments;
+
+    // What the index knows about one segment file
+    private static class Segment {
+        private String kind;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        private int rows;
+
+        // Patient IDs with rows in the segment
+        private HashSet<Integer> patientIds;
+
+        Segment(String kind, LocalDate firstDate, LocalDate lastDate, int rows, HashSet<Integer> patientIds) {
+            this.kind = kind;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.rows = rows;
+            this.patientIds = patientIds;
+        }
+    }
+
+    // Column holding the patient ID in rows of each kind
+    private static int patientColumn(String kind) {
+        return kind.equals(APPOINTMENTS) ? 3 : 2;
+    }
+
+    // Constructor: opens (or creates) the archive folder and reads its index
+    public ClinicArchive(String directory, int maxCachedSegments) throws IOException {
+        this.directory = new File(directory);
+        this.maxCachedSegments = maxCachedSegments;
+        this.segments = new TreeMap<>();
+        this.cache = new LinkedHashMap<String, ArrayList<String[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayList<String[]>> eldest) {
+                return size() > ClinicArchive.this.maxCachedSegments;
+            }
+        };
+
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("Could not create archive folder: " + directory);
+        }
+        loadIndex();
+    }
+
+    // Adds rows of one kind to their monthly segments. Column 0 must be the row's ID and column 1
+    // its date ("YYYY-MM-DD"). A row whose ID is already archived replaces the old copy, so
+    // archiving the same rows twice (e.g. after a crash) does not duplicate them
+    public synchronized void append(String kind, List<String[]> rows) throws IOException {
+        TreeMap<String, ArrayList<String[]>> byMonth = new TreeMap<>();
+        for (String[] row : rows) {
+            String key = kind + "-" + row[1].substring(0, 7);
+            byMonth.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+
+        for (String key : byMonth.keySet()) {
+            // Segments are small and compressed as a whole, so appending rewrites the month
+            LinkedHashMap<String, String[]> byId = new LinkedHashMap<>();
+            if (segments.containsKey(key)) {
+                for (String[] row : readSegment(key)) {
+                    byId.put(row[0], row);
+                }
+            }
+            for (String[] row : byMonth.get(key)) {
+                byId.put(row[0], row);
+            }
+            ArrayList<String[]> merged = new ArrayList<>(byId.values());
+            merged.sort((a, b) -> a[1].compareTo(b[1]));
+
+            HashSet<Integer> patientIds = new HashSet<>();
+            for (String[] row : merged) {
+                patientIds.add(Integer.parseInt(row[patientColumn(kind)]));
+            }
+
+            writeSegment(key, merged);
+            segments.put(key, new Segment(kind, LocalDate.parse(merged.get(0)[1]),
+                    LocalDate.parse(merged.get(merged.size() - 1)[1]), merged.size(), patientIds));
+            cache.remove(key);
+
+            // Saved after every segment, so a failure in a later month never leaves a rewritten
+            // segment behind an index entry with the old date range and patients
+            saveIndex();
+        }
+    }
+
+    // Returns the archived rows of one kind on a date, reading at most one segment
+    public synchronized ArrayList<String[]> rowsOnDate(String kind, LocalDate date) throws IOException {
+        ArrayList<String[]> result = new ArrayList<>();
+        String key = kind + "-" + date.toString().substring(0, 7);
+        Segment segment = segments.get(key);
+        if (segment == null || date.isBefore(segment.firstDate) || date.isAfter(segment.lastDate)) {
+            return result;
+        }
+
+        String dateText = date.toString();
+        for (String[] row : readSegment(key)) {
+            if (row[1].equals(dateText)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    // Returns every archived row of one kind for a patient, reading only the segments
+    // whose index entry lists the patient
+    public synchronized ArrayList<String[]> rowsForPatient(String kind, int patientId) throws IOException {
+        ArrayList<String[]> result = new ArrayList<>();
+        String value = String.valueOf(patientId);
+        for (String key : segments.keySet()) {
+            Segment segment = segments.get(key);
+            if (!segment.kind.equals(kind) || !segment.patientIds.contains(patientId)) {
+                continue;
+            }
+            for (String[] row : readSegment(key)) {
+                if (value.equals(row[patientColumn(kind)])) {
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Returns every archived row of one kind, oldest month first (e.g. to write a full export)
+    public synchronized ArrayList<String[]> allRows(String kind) throws IOException {
+        ArrayList<String[]> result = new ArrayList<>();
+        for (String key : segments.keySet()) {
+            if (segments.get(key).kind.equals(kind)) {
+                result.addAll(readSegment(key));
+            }
+        }
+        return result;
+    }
+
+    // Total number of archived rows of one kind
+    public synchronized int size(String kind) {
+        int total = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.kind.equals(kind)) {
+                total += segment.rows;
+            }
+        }
+        return total;
+    }
+
+    // Reads a segment through the cache
+    private ArrayList<String[]> readSegment(String key) throws IOException {
+        ArrayList<String[]> rows = cache.get(key);
+        if (rows != null) {
+            return rows;
+        }
+
+        int columns = segments.get(key).kind.equals(APPOINTMENTS) ? APPOINTMENT_COLUMNS : RECORD_COLUMNS;
+        rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(segmentFile(key))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] row = line.split("\t", -1);
+                if (row.length != columns) {
+                    System.out.println("Skipping bad line in " + key + ": " + line);
+                    continue;
+                }
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = unescape(row[i]);
+                }
+                rows.add(row);
+            }
+        }
+        cache.put(key, rows);
+        return rows;
+    }
+
+    // Rows are tab-separated because doctors' notes often contain commas;
+    // tabs, line breaks and backslashes inside a field are escaped
+    // Written to a temporary file and moved into place, so a failed write leaves the old segment whole
+    private void writeSegment(String key, List<String[]> rows) throws IOException {
+        File temp = new File(directory, key + ".seg.gz.tmp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(temp)), StandardCharsets.UTF_8))) {
+            for (String[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        writer.write('\t');
+                    }
+                    writer.write(escape(row[i]));
+                }
+                writer.newLine();
+            }
+        }
+        replaceFile(temp.toPath(), segmentFile(key).toPath());
+    }
+
+    private static void replaceFile(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // null is written as \N so it can be told apart from an empty field
+    private static String escape(String field) {
+        if (field == null) {
+            return "\\N";
+        }
+        StringBuilder out = new StringBuilder(field.length());
+        for (char c : field.toCharArray()) {
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String field) {
+        if (field.equals("\\N")) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder out = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    // Packs a list (e.g. prescriptions) into one field as "a;b;c", escaping ';' inside items
+    public static String joinList(List<String> items) {
+        StringBuilder out = new StringBuilder();
+        for (String item : items) {
+            if (out.length() > 0) {
+                out.append(';');
+            }
+            out.append(item.replace("\\", "\\\\").replace(";", "\\;"));
+        }
+        return out.toString();
+    }
+
+    // Reverses joinList
+    public static ArrayList<String> splitList(String field) {
+        ArrayList<String> items = new ArrayList<>();
+        if (field == null || field.isEmpty()) {
+            return items;
+        }
+        StringBuilder item = new StringBuilder();
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                item.append(field.charAt(++i));
+            } else if (c == ';') {
+                items.add(item.toString());
+                item.setLength(0);
+            } else {
+                item.append(c);
+            }
+        }
+        items.add(item.toString());
+        return items;
+    }
+
+    private File segmentFile(String key) {
+        return new File(directory, key + ".seg.gz");
+    }
+
+    // index.txt format per line:
+    // key,kind,firstDate,lastDate,rows,patientIds (';'-separated)
+    private void saveIndex() throws IOException {
+        File temp = new File(directory, "index.txt.tmp");
+        try (FileWriter writer = new FileWriter(temp)) {
+            for (String key : segments.keySet()) {
+                Segment s = segments.get(key);
+                StringBuilder ids = new StringBuilder();
+                for (Integer id : s.patientIds) {
+                    if (ids.length() > 0) {
+                        ids.append(';');
+                    }
+                    ids.append(id);
+                }
+                writer.write(key + "," + s.kind + "," + s.firstDate + "," + s.lastDate + "," + s.rows + "," + ids
+                        + System.lineSeparator());
+            }
+        }
+        replaceFile(temp.toPath(), new File(directory, "index.txt").toPath());
+    }
+
+    private void loadIndex() throws IOException {
+        File index = new File(directory, "index.txt");
+        if (!index.exists()) {
+            return;
+        }
+        try (Scanner scanner = new Scanner(index)) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(",", -1);
+                if (parts.length < 6) {
+                    System.out.println("Skipping bad line: " + line);
+                    continue;
+                }
+                HashSet<Integer> patientIds = new HashSet<>();
+                for (String id : parts[5].split(";")) {
+                    if (!id.isEmpty()) {
+                        patientIds.add(Integer.parseInt(id));
+                    }
+                }
+                segments.put(parts[0], new Segment(parts[1], LocalDate.parse(parts[2]),
+                        LocalDate.parse(parts[3]), Integer.parseInt(parts[4]), patientIds));
+            }
+        }
+    }
+}
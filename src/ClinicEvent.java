@@ -0,0 +1,51 @@
+// Class: ClinicEvent
+// One change made in the clinic system (e.g. "PatientAdded", "AppointmentStatusChanged").
+// Instances are reused slots of a ClinicEventRing, so handlers must copy what they keep
+
+public class ClinicEvent {
+    // Position of the event in the stream
+    private long sequence;
+
+    // When the change happened (milliseconds since 1970)
+    private long timestamp;
+
+    // What changed, e.g. "AppointmentScheduled"
+    private String type;
+
+    // ID of the patient, doctor or appointment that changed
+    private int entityId;
+
+    // New values in CSV form
+    private String payload;
+
+    // Fills the slot with a new event
+    public void set(long sequence, long timestamp, String type, int entityId, String payload) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.entityId = entityId;
+        this.payload = payload;
+    }
+
+    //Accessor or getter methods
+    public long getSequence() {
+        return sequence;
+    }
+    public long getTimestamp() {
+        return timestamp;
+    }
+    public String getType() {
+        return type;
+    }
+    public int getEntityId() {
+        return entityId;
+    }
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return sequence + "," + timestamp + "," + type + "," + String.format("%04d", entityId) + "," + payload;
+    }
+}
@@ -0,0 +1,6 @@
+// Interface: ClinicEventHandler
+// Consumes events from a ClinicEventRing; endOfBatch is true for the last event currently available
+
+public interface ClinicEventHandler {
+    void onEvent(ClinicEvent event, long sequence, boolean endOfBatch) throws java.io.IOException;
+}
@@ -0,0 +1,6 @@
+// Interface: ClinicEventPublisher
+// Receives every change made to patients, doctors and appointments
+
+public interface ClinicEventPublisher {
+    void publish(String type, int entityId, String payload);
+}
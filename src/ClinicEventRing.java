@@ -0,0 +1,293 @@
+// Class: ClinicEventRing
+// Lock-free ring buffer of ClinicEvent slots (Disruptor style). Writers claim a sequence number,
+// fill the pre-allocated slot and mark it published; each handler runs on its own thread and
+// processes everything published since its last pass as one batch.
+// Writers only wait when the slowest handler is a full ring behind (back-pressure), and never longer
+// than maxWait: then the event goes to an overflow handler instead, so a stuck handler cannot stop bookings.
+// A failing handler is retried on the same event and never skips it, so its output has no gaps.
+// Events published after close() are dropped and counted
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class ClinicEventRing implements ClinicEventPublisher {
+
+    // Pre-allocated event slots; the size is a power of two so a sequence maps to a slot with a mask
+    private ClinicEvent[] slots;
+    private int mask;
+
+    // Sequence last published in each slot (-1 before first use)
+    private AtomicLongArray published;
+
+    // Highest sequence claimed by a writer
+    private AtomicLong claimed;
+
+    // Last known position of the slowest handler, so writers rarely need to check every handler
+    private volatile long gate;
+
+    private ArrayList<Consumer> consumers;
+    private volatile boolean running;
+
+    // Set by close(); from then on publish returns at once
+    private volatile boolean closed;
+    private AtomicLong dropped;
+
+    // Longest a writer waits for room in a full ring
+    private long maxWaitNanos;
+
+    // Position of the slowest handler when a writer last gave up waiting (-2 if none). While that
+    // handler has not moved on, later writers do not wait again
+    private volatile long stalledAt;
+
+    // Receives events that found the ring full for too long (null: they are only counted).
+    // Its events carry sequence -1, since they never went through the ring
+    private ClinicEventHandler overflow;
+    private ClinicEvent overflowEvent;
+
+    // Constructor: writers wait at most 50 ms for a full ring
+    public ClinicEventRing(int capacity) {
+        this(capacity, 50);
+    }
+
+    // Constructor: capacity is rounded up to a power of two
+    public ClinicEventRing(int capacity, long maxWaitMillis) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new ClinicEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ClinicEvent();
+        }
+        mask = size - 1;
+
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        claimed = new AtomicLong(-1);
+        gate = -1;
+        consumers = new ArrayList<>();
+        dropped = new AtomicLong();
+        maxWaitNanos = maxWaitMillis * 1_000_000;
+        stalledAt = -2;
+        overflowEvent = new ClinicEvent();
+    }
+
+    // Registers a handler; must be called before start()
+    public void addHandler(ClinicEventHandler handler) {
+        if (running) {
+            throw new IllegalStateException("Handlers must be added before the ring is started");
+        }
+        consumers.add(new Consumer(handler));
+    }
+
+    // Sets where events go when the ring stays full (e.g. an EventLogSink on another disk);
+    // must be called before start()
+    public void setOverflowHandler(ClinicEventHandler handler) {
+        if (running) {
+            throw new IllegalStateException("Handlers must be added before the ring is started");
+        }
+        overflow = handler;
+    }
+
+    // Starts one thread per handler
+    public void start() {
+        running = true;
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // Number of events that were not put on the ring (sent to the overflow handler, or published after close)
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Claims the next slot, fills it and publishes it. Only blocks if the ring is full, for at most maxWait.
+    // A sequence is only claimed once its slot is free, so a writer that gives up leaves no gap
+    @Override
+    public void publish(String type, int entityId, String payload) {
+        long sequence;
+        long waitStart = -1;
+        while (true) {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            long current = claimed.get();
+            long wrapPoint = current + 1 - slots.length;
+
+            // Back-pressure: wait until every handler has finished with the slot we are about to reuse
+            if (wrapPoint > gate) {
+                long slowest = slowestConsumer(current);
+                gate = slowest;
+                if (wrapPoint > slowest) {
+                    long now = System.nanoTime();
+                    if (waitStart < 0) {
+                        waitStart = now;
+                    }
+                    if (slowest == stalledAt) {
+                        spill(type, entityId, payload);
+                        return;
+                    }
+                    if (now - waitStart >= maxWaitNanos) {
+                        stalledAt = slowest;
+                        System.out.println("Event ring full for " + maxWaitNanos / 1_000_000
+                                + " ms; sending events to the overflow handler");
+                        spill(type, entityId, payload);
+                        return;
+                    }
+                    LockSupport.parkNanos(1000);
+                    continue;
+                }
+            }
+            if (claimed.compareAndSet(current, current + 1)) {
+                sequence = current + 1;
+                break;
+            }
+        }
+
+        int index = (int) (sequence & mask);
+        slots[index].set(sequence, System.currentTimeMillis(), type, entityId, payload);
+        published.set(index, sequence);
+    }
+
+    // Hands an event that found the ring full to the overflow handler, one writer at a time
+    private void spill(String type, int entityId, String payload) {
+        dropped.incrementAndGet();
+        if (overflow == null) {
+            return;
+        }
+        synchronized (overflowEvent) {
+            overflowEvent.set(-1, System.currentTimeMillis(), type, entityId, payload);
+            try {
+                overflow.onEvent(overflowEvent, -1, true);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Overflow event handler failed, event lost: " + e.getMessage());
+            }
+        }
+    }
+
+    // Stops the handler threads once they have processed everything already published,
+    // then closes handlers that hold resources (such as an EventLogSink).
+    // Throws if a handler was still failing, naming the first sequence it never delivered
+    public void close() throws IOException {
+        closed = true;
+        running = false;
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while stopping event handlers", e);
+            }
+        }
+        for (Consumer consumer : consumers) {
+            if (consumer.handler instanceof Closeable) {
+                ((Closeable) consumer.handler).close();
+            }
+        }
+        if (overflow instanceof Closeable) {
+            synchronized (overflowEvent) {
+                ((Closeable) overflow).close();
+            }
+        }
+        for (Consumer consumer : consumers) {
+            if (consumer.failedSequence >= 0) {
+                throw new IOException("Event handler " + consumer.thread.getName() + " stopped at sequence "
+                        + consumer.failedSequence + "; events " + consumer.failedSequence + " to " + claimed.get()
+                        + " were not delivered", consumer.failure);
+            }
+        }
+    }
+
+    // With no handlers the ring never fills
+    private long slowestConsumer(long sequence) {
+        long slowest = sequence;
+        for (Consumer consumer : consumers) {
+            slowest = Math.min(slowest, consumer.sequence.get());
+        }
+        return slowest;
+    }
+
+    // A handler, its thread and the last sequence it finished
+    private class Consumer implements Runnable {
+        private ClinicEventHandler handler;
+        private AtomicLong sequence;
+        private Thread thread;
+
+        // First sequence the handler could not take before the ring closed (-1 if none)
+        private volatile long failedSequence;
+        private Exception failure;
+
+        Consumer(ClinicEventHandler handler) {
+            this.handler = handler;
+            this.sequence = new AtomicLong(-1);
+            this.failedSequence = -1;
+            this.thread = new Thread(this, "clinic-events-" + consumers.size());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (true) {
+                // Find the end of the unbroken run of published events
+                long available = next - 1;
+                while (published.get((int) ((available + 1) & mask)) == available + 1) {
+                    available++;
+                }
+
+                if (available < next) {
+                    if (!running && next > claimed.get()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(100_000);
+                    continue;
+                }
+
+                for (long s = next; s <= available; s++) {
+                    if (!deliver(s, s == available)) {
+                        return;
+                    }
+                }
+                sequence.set(available);
+                next = available + 1;
+            }
+        }
+
+        // Hands one event to the handler, retrying with growing pauses until it succeeds.
+        // While it fails, the consumer's sequence stays before the event, so once the ring
+        // fills up the writers wait instead of overwriting undelivered events.
+        // Returns false if the ring was closed while the handler was still failing
+        private boolean deliver(long s, boolean endOfBatch) {
+            long pauseNanos = 1_000_000;
+            boolean reported = false;
+            while (true) {
+                try {
+                    handler.onEvent(slots[(int) (s & mask)], s, endOfBatch);
+                    return true;
+                } catch (IOException | RuntimeException e) {
+                    sequence.set(s - 1);
+                    if (!reported) {
+                        System.out.println("Event handler failed at sequence " + s + ", retrying: " + e.getMessage());
+                        reported = true;
+                    }
+                    if (!running) {
+                        failure = e;
+                        failedSequence = s;
+                        return false;
+                    }
+                    LockSupport.parkNanos(pauseNanos);
+                    pauseNanos = Math.min(pauseNanos * 2, 1_000_000_000L);
+                }
+            }
+        }
+    }
+}
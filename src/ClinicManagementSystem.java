@@ -4,26 +4,45 @@
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Scanner;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClinicManagementSystem implements FileOperations, ReportGenerator {
 
     // Maps a unique patientId (key) to a Patient object (value)
     private HashMap<Integer, Patient> patients;
 
+    // Patients registered at another branch and only visiting this one; they are not saved here
+    private HashSet<Integer> visitorIds;
+
     // Stores all registered doctors in a list
     private ArrayList<Doctor> doctors;
 
     // Stores all scheduled appointments
     private ArrayList<Appointment> appointments;
 
+    // Maps each live appointment's ID to the Appointment, so reminders and cancellations find it in O(1)
+    private HashMap<Integer, Appointment> appointmentsById;
+
     // Stores all medical records created in the system
     private ArrayList<MedicalRecord> medicalRecords;
 
+    // Owner of each medical record (record ID -> patient ID), so records can be found without
+    // walking the patients, some of which may not be loaded
+    private HashMap<Integer, Integer> recordPatients;
+
     // ID counters
     private int nextPatientId;
     private int nextDoctorId;
@@ -33,13 +52,42 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
     // Maps each date (String "YYYY-MM-DD") to a list of appointments on that date
     private TreeMap<String, ArrayList<Appointment>> appointmentsByDate;
 
+    // Lazy startup: patients still in the loaded file (null when everything was loaded eagerly)
+    private PatientFileIndex lazyPatients;
+    private String lazyPatientsFile;
+
+    // Patients waiting for a freed slot, per doctor or per specialisation (walk-ins)
+    private Waitlist waitlist;
+
+    // Guards appointments, appointmentsById, appointmentsByDate and nextAppointmentId, so slots freed for
+    // different doctors can be re-booked from several threads at once
+    private Object appointmentLock;
+
+    // One lock per doctor: a freed slot is released, offered and re-booked under its doctor's lock
+    private ConcurrentHashMap<Integer, Object> doctorLocks;
+
+    // Pending appointment reminders (null until enableReminders is called)
+    private ReminderScheduler reminders;
+
+    // Change events for downstream systems (null until enableEventStream is called)
+    private ClinicEventPublisher events;
+
+    // Cold storage for appointments and medical records past the archive horizon (null until enableArchive)
+    private ClinicArchive archive;
+
     // Constructor: initializes collections and ID counters
     public ClinicManagementSystem() {
         patients = new HashMap<>();
+        visitorIds = new HashSet<>();
         doctors = new ArrayList<>();
         appointments = new ArrayList<>();
+        appointmentsById = new HashMap<>();
         medicalRecords = new ArrayList<>();
+        recordPatients = new HashMap<>();
         appointmentsByDate = new TreeMap<>();
+        waitlist = new Waitlist();
+        appointmentLock = new Object();
+        doctorLocks = new ConcurrentHashMap<>();
 
         nextPatientId = 1;
         nextDoctorId = 1;
@@ -53,12 +101,57 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
         Patient patient = new Patient(id, name, email, phone, address, gender, dateOfBirth, emergencyContact);
         patients.put(id, patient);
         nextPatientId++;
+
+        if (events != null) {
+            patient.setEventPublisher(events);
+            events.publish("PatientAdded", id, formatPatient(id, patient));
+        }
         return patient;
     }
 
+    // Stores an already-created Patient under its own ID (used when another system assigns IDs)
+    public void registerPatient(Patient patient) {
+        int id = patient.getPatientId();
+        patients.put(id, patient);
+        if (events != null) {
+            patient.setEventPublisher(events);
+        }
+
+        // Keep nextPatientId ahead of the largest id we see
+        if (id >= nextPatientId) {
+            nextPatientId = id + 1;
+        }
+    }
+
+    // Makes another branch's patient known here (same Patient object) without saving them with this branch
+    public void registerVisitor(Patient patient) {
+        registerPatient(patient);
+        visitorIds.add(patient.getPatientId());
+    }
+
     // Returns the Patient object if found, or null if no match
     public Patient findPatient(int patientId) {
-        return patients.get(patientId);
+        Patient p = patients.get(patientId);
+        if (p == null && lazyPatients != null) {
+            // Created from the file on first access
+            p = lazyPatients.get(patientId);
+            if (p != null && events != null) {
+                p.setEventPublisher(events);
+            }
+        }
+        return p;
+    }
+
+    // After a lazy load, keeps a file patient's object from being evicted once other objects refer to it
+    private void pinPatient(Patient patient) {
+        if (lazyPatients != null && !patients.containsKey(patient.getPatientId())) {
+            lazyPatients.pin(patient.getPatientId());
+        }
+    }
+
+    // Returns every patient held in memory (after a lazy load, only patients added since)
+    public Collection<Patient> getPatients() {
+        return patients.values();
     }
 
     // Uses nextDoctorId as the new doctor's unique ID
@@ -71,9 +164,22 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
 
         doctors.add(doctor);
         nextDoctorId++;
+
+        if (events != null) {
+            events.publish("DoctorAdded", docId, doctor.getName() + "," + specialisation + "," + hospitalRoom);
+        }
         return doctor;
     }
 
+    // Stores an already-created Doctor under its own ID (used when another system assigns IDs)
+    public void registerDoctor(Doctor doctor) {
+        doctors.add(doctor);
+
+        if (doctor.getDoctorId() >= nextDoctorId) {
+            nextDoctorId = doctor.getDoctorId() + 1;
+        }
+    }
+
     // Returns the Doctor object if found, or null otherwise
     public Doctor findDoctor(int doctorId) {
         for (Doctor doctor : doctors) {
@@ -99,12 +205,39 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
             return null;
         }
 
-        int id = nextAppointmentId;
-        Appointment appointment = new Appointment(id, time, reason, patient, doctor, date, "Scheduled");
+        pinPatient(patient);
+
+        Appointment appointment;
+        synchronized (appointmentLock) {
+            int id = nextAppointmentId;
+            appointment = new Appointment(id, time, reason, patient, doctor, date, "Scheduled");
+            indexAppointment(appointment);
+        }
+        scheduleReminder(appointment);
+        return appointment;
+    }
+
+    // Stores an already-created Appointment and indexes it by date
+    public void registerAppointment(Appointment appointment) {
+        synchronized (appointmentLock) {
+            indexAppointment(appointment);
+        }
+        scheduleReminder(appointment);
+    }
+
+    // Adds the appointment to the list, the ID map and the date index, and publishes it; caller holds
+    // appointmentLock. The publisher is attached before the appointment can be found and the booking
+    // event goes out before the lock is released, so no status change can be lost or come first
+    private void indexAppointment(Appointment appointment) {
+        ClinicEventPublisher stream = events;
+        if (stream != null) {
+            appointment.setEventPublisher(stream);
+        }
         appointments.add(appointment);
+        appointmentsById.put(appointment.getAppointmentId(), appointment);
 
         // Use a String key "YYYY-MM-DD" for consistency with the lab
-        String dateKey = date.toString();
+        String dateKey = appointment.getDate().toString();
 
         ArrayList<Appointment> dailyList = appointmentsByDate.get(dateKey);
         if (dailyList == null) {
@@ -113,42 +246,530 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
         }
         dailyList.add(appointment);
 
-        nextAppointmentId++;
+        // Keep nextAppointmentId ahead of the largest id we see
+        if (appointment.getAppointmentId() >= nextAppointmentId) {
+            nextAppointmentId = appointment.getAppointmentId() + 1;
+        }
+
+        if (stream != null) {
+            stream.publish("AppointmentScheduled", appointment.getAppointmentId(),
+                    appointment.getDate() + "," + appointment.getTime() + ","
+                            + String.format("%04d", appointment.getPatient().getPatientId()) + ","
+                            + String.format("%04d", appointment.getDoctor().getDoctorId()) + ","
+                            + appointment.getReason() + "," + appointment.getStatus());
+        }
+    }
+
+    private void scheduleReminder(Appointment appointment) {
+        if (reminders != null && appointment.getStatus().equals("Scheduled")) {
+            reminders.schedule(appointment);
+        }
+    }
+
+    // Moves the appointment to a new date and time and updates its reminder.
+    // Returns the Appointment, or null if it is not found or already archived
+    public Appointment rescheduleAppointment(int appointmentId, LocalDate date, String time) {
+        Appointment appointment = findAppointment(appointmentId);
+        if (appointment == null) {
+            return null;
+        }
+
+        synchronized (appointmentLock) {
+            ArrayList<Appointment> oldList = appointmentsByDate.get(appointment.getDate().toString());
+            if (oldList != null) {
+                oldList.remove(appointment);
+                if (oldList.isEmpty()) {
+                    appointmentsByDate.remove(appointment.getDate().toString());
+                }
+            }
+
+            appointment.setDate(date);
+            appointment.setTime(time);
+
+            ArrayList<Appointment> dailyList = appointmentsByDate.get(date.toString());
+            if (dailyList == null) {
+                dailyList = new ArrayList<>();
+                appointmentsByDate.put(date.toString(), dailyList);
+            }
+            dailyList.add(appointment);
+        }
+
+        if (reminders != null && appointment.getStatus().equals("Scheduled")) {
+            reminders.schedule(appointment);
+        }
         return appointment;
     }
 
+    // Starts sending reminders one day before each scheduled appointment, batchSize at a time
+    // and at most maxBatchesPerSecond batches per second (0 = no limit)
+    public void enableReminders(ReminderSink sink, int batchSize, int maxBatchesPerSecond) {
+        reminders = new ReminderScheduler(this::findAppointment, sink, Duration.ofDays(1),
+                batchSize, maxBatchesPerSecond, LocalDateTime.now());
+
+        for (Appointment a : copyAppointments()) {
+            if (a.getStatus().equals("Scheduled")) {
+                reminders.schedule(a);
+            }
+        }
+    }
+
+    // Starts a change-event stream: every new patient, doctor and appointment, and every
+    // Patient/Appointment setter call, is published to the ring and handed to the handlers
+    // on their own threads. Call disableEventStream to drain and stop it
+    public ClinicEventRing enableEventStream(int capacity, ClinicEventHandler... handlers) {
+        return enableEventStream(capacity, 50, null, handlers);
+    }
+
+    // As above, but a change waits at most maxWaitMillis for a full ring (a handler that is far behind
+    // or failing); after that it goes to the overflow handler, so bookings never block for long
+    public ClinicEventRing enableEventStream(int capacity, long maxWaitMillis, ClinicEventHandler overflow,
+                                             ClinicEventHandler... handlers) {
+        ClinicEventRing ring = new ClinicEventRing(capacity, maxWaitMillis);
+        ring.setOverflowHandler(overflow);
+        for (ClinicEventHandler handler : handlers) {
+            ring.addHandler(handler);
+        }
+        ring.start();
+        events = ring;
+
+        for (Patient p : patients.values()) {
+            p.setEventPublisher(events);
+        }
+        for (Appointment a : copyAppointments()) {
+            a.setEventPublisher(events);
+        }
+        return ring;
+    }
+
+    // Detaches the event stream from the system, then drains and closes the ring.
+    // Changes made afterwards are no longer published
+    public void disableEventStream() throws IOException {
+        ClinicEventPublisher stream = events;
+        if (stream == null) {
+            return;
+        }
+        events = null;
+
+        for (Patient p : patients.values()) {
+            p.setEventPublisher(null);
+        }
+        for (Appointment a : copyAppointments()) {
+            a.setEventPublisher(null);
+        }
+        if (stream instanceof ClinicEventRing) {
+            ((ClinicEventRing) stream).close();
+        }
+    }
+
+    // Sends the reminders that are due now. Returns how many were sent
+    public int sendDueReminders() throws IOException {
+        return sendDueReminders(LocalDateTime.now());
+    }
+
+    public int sendDueReminders(LocalDateTime now) throws IOException {
+        if (reminders == null) {
+            return 0;
+        }
+        return reminders.advanceTo(now);
+    }
+
+    // Returns the Appointment object if found, or null otherwise. Only live appointments can be found and
+    // changed; archived ones are read-only and come back through getAppointmentsOnDate and saveAppointmentsToFile
+    public Appointment findAppointment(int appointmentId) {
+        synchronized (appointmentLock) {
+            return appointmentsById.get(appointmentId);
+        }
+    }
+
+    // Snapshot of all appointments, safe to walk while other threads book
+    private ArrayList<Appointment> copyAppointments() {
+        synchronized (appointmentLock) {
+            return new ArrayList<>(appointments);
+        }
+    }
+
+    // Puts the patient on a doctor's waitlist. Returns the entry, or null if patient/doctor is not found
+    public WaitlistEntry joinWaitlist(int patientId, int doctorId, int urgency, String reason) {
+        Patient patient = findPatient(patientId);
+        if (patient == null || findDoctor(doctorId) == null) {
+            return null;
+        }
+        pinPatient(patient);
+        return waitlist.add(Waitlist.doctorKey(doctorId), patient, urgency, reason);
+    }
+
+    // Puts the patient (e.g. a walk-in) on the waitlist for any doctor of a specialisation.
+    // Returns the entry, or null if the patient is not found
+    public WaitlistEntry joinWaitlist(int patientId, String specialisation, int urgency, String reason) {
+        Patient patient = findPatient(patientId);
+        if (patient == null) {
+            return null;
+        }
+        pinPatient(patient);
+        return waitlist.add(Waitlist.specialisationKey(specialisation), patient, urgency, reason);
+    }
+
+    // Takes the most urgent walk-in for a specialisation, or null if nobody is waiting
+    public WaitlistEntry nextWalkIn(String specialisation) {
+        return waitlist.pollEligible(Waitlist.specialisationKey(specialisation), entry -> true);
+    }
+
+    public Waitlist getWaitlist() {
+        return waitlist;
+    }
+
+    // Cancels the appointment and offers the slot to the waitlist if it is still ahead.
+    // Returns the appointment booked for the next waiting patient, or null if nobody took the slot
+    public Appointment cancelAppointment(int appointmentId) {
+        return releaseSlot(appointmentId, "Cancelled");
+    }
+
+    // Marks the appointment as a no-show and offers the slot to the waitlist if it is still ahead.
+    // Returns the appointment booked for the next waiting patient, or null if nobody took the slot
+    public Appointment markNoShow(int appointmentId) {
+        return releaseSlot(appointmentId, "No-show");
+    }
+
+    // The status change, waitlist poll and re-booking happen under the doctor's lock, so two
+    // threads cannot free the same slot twice or book one patient into two of the doctor's slots
+    private Appointment releaseSlot(int appointmentId, String status) {
+        Appointment freed = findAppointment(appointmentId);
+        if (freed == null) {
+            return null;
+        }
+
+        Object doctorLock = doctorLocks.computeIfAbsent(freed.getDoctor().getDoctorId(), id -> new Object());
+        synchronized (doctorLock) {
+            if (!freed.getStatus().equals("Scheduled")) {
+                return null;
+            }
+            freed.setStatus(status);
+            if (reminders != null) {
+                reminders.cancel(appointmentId);
+            }
+            // A slot that has already started cannot be given to anyone else
+            if (!freed.getDateTime().isAfter(LocalDateTime.now())) {
+                return null;
+            }
+            return offerSlot(freed);
+        }
+    }
+
+    // Books the freed slot for the most urgent eligible patient, checking the doctor's own
+    // waitlist and the specialisation waitlist and taking whichever head is more urgent
+    private Appointment offerSlot(Appointment freed) {
+        Doctor doctor = freed.getDoctor();
+        String doctorKey = Waitlist.doctorKey(doctor.getDoctorId());
+        String specialisationKey = Waitlist.specialisationKey(doctor.getSpecialisation());
+
+        WaitlistEntry doctorHead = waitlist.peek(doctorKey);
+        WaitlistEntry specialisationHead = waitlist.peek(specialisationKey);
+        boolean doctorFirst = specialisationHead == null
+                || (doctorHead != null && doctorHead.compareTo(specialisationHead) <= 0);
+
+        String firstKey = doctorFirst ? doctorKey : specialisationKey;
+        String secondKey = doctorFirst ? specialisationKey : doctorKey;
+
+        WaitlistEntry next = waitlist.pollEligible(firstKey, entry -> canTakeSlot(entry, freed));
+        if (next == null) {
+            next = waitlist.pollEligible(secondKey, entry -> canTakeSlot(entry, freed));
+        }
+        if (next == null) {
+            return null;
+        }
+
+        return scheduleAppointment(next.getPatient().getPatientId(), doctor.getDoctorId(),
+                freed.getDate(), freed.getTime(), next.getReason());
+    }
+
+    // A waiting patient may take the slot unless it was theirs or they already see this doctor that day.
+    // Compares IDs, since a lazily loaded patient may be represented by more than one object
+    private boolean canTakeSlot(WaitlistEntry entry, Appointment freed) {
+        int patientId = entry.getPatient().getPatientId();
+        int doctorId = freed.getDoctor().getDoctorId();
+        if (patientId == freed.getPatient().getPatientId()) {
+            return false;
+        }
+        for (Appointment a : getAppointmentsOnDate(freed.getDate().toString())) {
+            if (a.getPatient().getPatientId() == patientId && a.getDoctor().getDoctorId() == doctorId
+                    && a.getStatus().equals("Scheduled")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Creates a medical record for the patient. Returns the record, or null if the patient is not found
+    public MedicalRecord addMedicalRecord(int patientId, LocalDate date, String diagnosis, String treatmentNotes, String doctorNotes) {
+        Patient patient = findPatient(patientId);
+        if (patient == null) {
+            return null;
+        }
+
+        MedicalRecord record = new MedicalRecord(nextRecordId, date, diagnosis, treatmentNotes, doctorNotes);
+        pinPatient(patient);
+        patient.addMedicalRecord(record);
+        medicalRecords.add(record);
+        recordPatients.put(record.getRecordId(), patientId);
+        nextRecordId++;
+        return record;
+    }
+
+    // Returns the appointments on a date ("YYYY-MM-DD", single-digit month/day allowed), or an empty list.
+    // Archived appointments are read back from their segment when the date is in the archive
+    public ArrayList<Appointment> getAppointmentsOnDate(String date) {
+        date = normalizeDate(date);
+        ArrayList<Appointment> result = new ArrayList<>();
+
+        synchronized (appointmentLock) {
+            ArrayList<Appointment> dailyList = appointmentsByDate.get(date);
+            if (dailyList != null) {
+                result.addAll(dailyList);
+            }
+        }
+
+        if (archive != null && date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            try {
+                // appointmentId,date,time,patientId,doctorId,reason,status
+                for (String[] row : archive.rowsOnDate(ClinicArchive.APPOINTMENTS, LocalDate.parse(date))) {
+                    try {
+                        Patient patient = findPatient(Integer.parseInt(row[3]));
+                        Doctor doctor = findDoctor(Integer.parseInt(row[4]));
+                        if (patient == null || doctor == null) {
+                            System.out.println("Skipping archived appointment " + row[0] + ": patient or doctor not found");
+                            continue;
+                        }
+                        result.add(new Appointment(Integer.parseInt(row[0]), row[2], row[5], patient, doctor,
+                                LocalDate.parse(row[1]), row[6]));
+                    } catch (RuntimeException e) {
+                        // One damaged row must not hide the rest of the day
+                        System.out.println("Skipping bad archived appointment " + row[0] + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("The archive could not be read: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    // Returns all of a patient's medical records, archived ones first, oldest first
+    public ArrayList<MedicalRecord> getPatientHistory(int patientId) {
+        ArrayList<MedicalRecord> history = new ArrayList<>();
+
+        if (archive != null) {
+            try {
+                // recordId,date,patientId,diagnosis,treatmentNotes,doctorNotes,prescriptions
+                for (String[] row : archive.rowsForPatient(ClinicArchive.RECORDS, patientId)) {
+                    try {
+                        MedicalRecord record = new MedicalRecord(Integer.parseInt(row[0]), LocalDate.parse(row[1]),
+                                row[3], row[4], row[5]);
+                        record.getPrescriptions().addAll(ClinicArchive.splitList(row[6]));
+                        history.add(record);
+                    } catch (RuntimeException e) {
+                        System.out.println("Skipping bad archived record " + row[0] + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("The archive could not be read: " + e.getMessage());
+            }
+        }
+
+        Patient patient = findPatient(patientId);
+        if (patient != null) {
+            history.addAll(patient.getMedicalHistory());
+        }
+        history.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+        return history;
+    }
+
+    // Keeps archived segments in the given folder; up to 8 recently read segments stay in memory
+    public void enableArchive(String directory) throws IOException {
+        archive = new ClinicArchive(directory, 8);
+    }
+
+    // Moves appointments and medical records dated before the horizon out of memory into the archive.
+    // Returns how many were moved
+    public int archiveOlderThan(LocalDate horizon) throws IOException {
+        if (archive == null) {
+            throw new IOException("No archive folder set; call enableArchive first");
+        }
+
+        // appointmentsByDate is sorted by date, so the old days are one head range
+        ArrayList<Appointment> moved = new ArrayList<>();
+        synchronized (appointmentLock) {
+            for (ArrayList<Appointment> dailyList : appointmentsByDate.headMap(horizon.toString()).values()) {
+                moved.addAll(dailyList);
+            }
+        }
+
+        ArrayList<String[]> appointmentRows = new ArrayList<>();
+        for (Appointment a : moved) {
+            appointmentRows.add(new String[] {
+                    String.valueOf(a.getAppointmentId()),
+                    a.getDate().toString(),
+                    a.getTime(),
+                    String.valueOf(a.getPatient().getPatientId()),
+                    String.valueOf(a.getDoctor().getDoctorId()),
+                    a.getReason(),
+                    a.getStatus()
+            });
+        }
+
+        ArrayList<String[]> recordRows = new ArrayList<>();
+        ArrayList<MedicalRecord> movedRecords = new ArrayList<>();
+        for (MedicalRecord r : medicalRecords) {
+            if (r.getDate().isBefore(horizon)) {
+                recordRows.add(new String[] {
+                        String.valueOf(r.getRecordId()),
+                        r.getDate().toString(),
+                        String.valueOf(recordPatients.get(r.getRecordId())),
+                        r.getDiagnosis(),
+                        r.getTreatmentNotes(),
+                        r.getDoctorNotes(),
+                        ClinicArchive.joinList(r.getPrescriptions())
+                });
+                movedRecords.add(r);
+            }
+        }
+
+        // Write first, so nothing leaves memory unless it is safely on disk
+        archive.append(ClinicArchive.APPOINTMENTS, appointmentRows);
+        archive.append(ClinicArchive.RECORDS, recordRows);
+
+        // Remove exactly what was written; appointments booked meanwhile stay live
+        synchronized (appointmentLock) {
+            HashSet<Appointment> movedSet = new HashSet<>(moved);
+            appointments.removeAll(movedSet);
+            for (Appointment a : moved) {
+                appointmentsById.remove(a.getAppointmentId());
+            }
+            appointmentsByDate.headMap(horizon.toString()).values().removeIf(dailyList -> {
+                dailyList.removeAll(movedSet);
+                return dailyList.isEmpty();
+            });
+        }
+        for (Appointment a : moved) {
+            if (reminders != null) {
+                reminders.cancel(a.getAppointmentId());
+            }
+        }
+        // Patients with records are pinned, so findPatient returns the object holding them
+        for (MedicalRecord r : movedRecords) {
+            Patient p = findPatient(recordPatients.remove(r.getRecordId()));
+            if (p != null) {
+                p.getMedicalHistory().remove(r);
+            }
+        }
+        medicalRecords.removeAll(new HashSet<>(movedRecords));
+
+        return moved.size() + movedRecords.size();
+    }
+
+    // Pads single-digit month or day so "2025-8-7" matches the "2025-08-07" keys
+    public static String normalizeDate(String date) {
+        String[] parts = date.split("-");
+        if (parts.length == 3) {
+            String y = parts[0];
+            String m = parts[1].length() == 1 ? "0" + parts[1] : parts[1];
+            String d = parts[2].length() == 1 ? "0" + parts[2] : parts[2];
+            date = y + "-" + m + "-" + d;
+        }
+        return date;
+    }
+
     // Save current system data (patients) to a text file in CSV format
     @Override
     public void saveToFile(String filename) throws IOException {
+        if (lazyPatients != null) {
+            saveLazyPatients(filename);
+            return;
+        }
+
         // Use try-with-resources so the writer closes automatically
         try (FileWriter writer = new FileWriter(filename)) {
             for (Integer id : patients.keySet()) {
-                Patient p = patients.get(id);
-
-                // 4-digit ID (0001, 0002, ...)
-                String idFormatted = String.format("%04d", id);
+                if (!visitorIds.contains(id)) {
+                    writer.write(formatPatient(id, patients.get(id)) + System.lineSeparator());
+                }
+            }
+        }
+    }
 
-                // CSV line: id,name,email,phone,address,gender,dateOfBirth,emergencyContact
-                String line = idFormatted + ","
-                        + p.getName() + ","
-                        + p.getEmail() + ","
-                        + p.getPhone() + ","
-                        + p.getAddress() + ","
-                        + p.getGender() + ","
-                        + p.getDateOfBirth().toString() + ","
-                        + p.getEmergencyContact();
+    // After a lazy load: copies untouched lines straight from the index and adds the in-memory patients.
+    // Writes to a temporary file first, so a failed save leaves the old file whole
+    private void saveLazyPatients(String filename) throws IOException {
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = Paths.get(filename + ".tmp");
+
+        try (FileWriter writer = new FileWriter(temp.toFile())) {
+            for (int i = 0; i < lazyPatients.size(); i++) {
+                int id = lazyPatients.idAt(i);
+                if (!patients.containsKey(id)) {
+                    writer.write(lazyPatients.getLine(id) + System.lineSeparator());
+                }
+            }
+            for (Integer id : new TreeMap<>(patients).keySet()) {
+                if (!visitorIds.contains(id)) {
+                    writer.write(formatPatient(id, patients.get(id)) + System.lineSeparator());
+                }
+            }
+        }
 
-                writer.write(line + System.lineSeparator());
+        // Windows cannot replace a file that is still open, so the index lets go of it for the move.
+        // Afterwards the offsets point into the new file, so it is indexed again. The same index is kept,
+        // since its pinned patients hold records and appointment links the file does not have
+        boolean indexedFile = target.equals(Paths.get(lazyPatientsFile).toAbsolutePath());
+        if (indexedFile) {
+            lazyPatients.close();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            if (indexedFile) {
+                lazyPatients.reindex(lazyPatientsFile);
             }
         }
+        lazyPatients.saveRecentIds(filename + ".recent");
+    }
+
+    // CSV line: id,name,email,phone,address,gender,dateOfBirth,emergencyContact
+    private static String formatPatient(int id, Patient p) {
+        // 4-digit ID (0001, 0002, ...)
+        String idFormatted = String.format("%04d", id);
+
+        return idFormatted + ","
+                + p.getName() + ","
+                + p.getEmail() + ","
+                + p.getPhone() + ","
+                + p.getAddress() + ","
+                + p.getGender() + ","
+                + p.getDateOfBirth().toString() + ","
+                + p.getEmergencyContact();
     }
 
-    // Save all appointments to a file (appointments.txt)
+    // Save all appointments to a file (appointments.txt), archived ones first
     // CSV format per line:
-    // appointmentId,date,time,patientId,patientName,doctorId,doctorName,reason,status
+    // appointmentId,date,time,doctorName,reason,status
     public void saveAppointmentsToFile(String filename) throws IOException {
         try (FileWriter writer = new FileWriter(filename)) {
-            for (Appointment a : appointments) {
+            if (archive != null) {
+                // appointmentId,date,time,patientId,doctorId,reason,status
+                for (String[] row : archive.allRows(ClinicArchive.APPOINTMENTS)) {
+                    Doctor doctor = findDoctor(Integer.parseInt(row[4]));
+                    String line =
+                            String.format("%04d", Integer.parseInt(row[0])) + "," +
+                                    row[1] + "," +
+                                    row[2] + "," +
+                                    (doctor == null ? "" : doctor.getName()) + "," +
+                                    row[5] + "," +
+                                    row[6];
+
+                    writer.write(line + System.lineSeparator());
+                }
+            }
+
+            for (Appointment a : copyAppointments()) {
                 String line =
                         String.format("%04d", a.getAppointmentId()) + "," +
                                 a.getDate().toString() + "," +
@@ -167,6 +788,11 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
     public void loadFromFile(String filename) throws IOException {
         // Clear any existing patients and reset ID counter
         patients.clear();
+        visitorIds.clear();
+        if (lazyPatients != null) {
+            lazyPatients.close();
+            lazyPatients = null;
+        }
         nextPatientId = 1;
 
         // try-with-resources ensures Scanner is closed automatically
@@ -222,11 +848,38 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
         }
     }
 
+    // Lazy startup: indexes the file's patient IDs without creating any Patient objects.
+    // At most maxResident file patients stay in memory. Up to warmUpCount patients are preloaded in the
+    // background: those in use at the last save (listed in "<file>.recent"), or else the newest registered
+    public void loadFromFileLazily(String filename, int maxResident, int warmUpCount) throws IOException {
+        patients.clear();
+        visitorIds.clear();
+        if (lazyPatients != null) {
+            lazyPatients.close();
+            lazyPatients = null;
+        }
+
+        try {
+            lazyPatients = new PatientFileIndex(filename, maxResident);
+        } catch (IOException e) {
+            System.out.println("The file could not be read: " + e.getMessage());
+            throw e;
+        }
+        lazyPatientsFile = filename;
+
+        // Keep nextPatientId ahead of the largest id in the file
+        nextPatientId = lazyPatients.maxId() + 1;
+
+        if (warmUpCount > 0) {
+            lazyPatients.startWarmUp(warmUpCount, filename + ".recent");
+        }
+    }
+
     // Generate a summary/report for a specific patient
     @Override
     public void generatePatientReport(int patientId) {
         // Look up the patient
-        Patient p = patients.get(patientId);
+        Patient p = findPatient(patientId);
 
         //  If not found, print message and stop
         if (p == null) {
@@ -253,17 +906,11 @@ public class ClinicManagementSystem implements FileOperations, ReportGenerator {
     @Override
     public void generateAppointmentReport(String date) {
         // Normalize incoming date if user used single-digit day or month (optional)
-        String[] parts = date.split("-");
-        if (parts.length == 3) {
-            String y = parts[0];
-            String m = parts[1].length() == 1 ? "0" + parts[1] : parts[1];
-            String d = parts[2].length() == 1 ? "0" + parts[2] : parts[2];
-            date = y + "-" + m + "-" + d;
-        }
+        date = normalizeDate(date);
 
-        ArrayList<Appointment> dailyList = appointmentsByDate.get(date);
+        ArrayList<Appointment> dailyList = getAppointmentsOnDate(date);
 
-        if (dailyList == null || dailyList.isEmpty()) {
+        if (dailyList.isEmpty()) {
             System.out.println("No appointments on " + date);
             return;
         }
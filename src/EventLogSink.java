@@ -0,0 +1,42 @@
+// Class: EventLogSink
+// Appends events to a local log file and forces them to disk at the end of each batch.
+// The ring retries a failed event, so a line may appear twice; readers should skip repeated sequence numbers
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+public class EventLogSink implements ClinicEventHandler, Closeable {
+    // Underlying file, kept to force writes to disk
+    private FileOutputStream file;
+
+    private BufferedWriter writer;
+
+    //Constructor: opens the log for appending
+    public EventLogSink(String filename) throws IOException {
+        file = new FileOutputStream(filename, true);
+        writer = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8));
+    }
+
+    // CSV format per line:
+    // sequence,timestamp,type,entityId,payload
+    @Override
+    public void onEvent(ClinicEvent event, long sequence, boolean endOfBatch) throws IOException {
+        writer.write(event.toString());
+        writer.newLine();
+
+        // One flush and disk sync per batch rather than per event
+        if (endOfBatch) {
+            writer.flush();
+            file.getChannel().force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,35 @@
+// Class: FileReminderSink
+// Appends each reminder batch to a local text file
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+public class FileReminderSink implements ReminderSink {
+    // File the reminders are appended to
+    private String filename;
+
+    //Constructor
+    public FileReminderSink(String filename) {
+        this.filename = filename;
+    }
+
+    // CSV format per line:
+    // appointmentId,date,time,patientName,patientPhone,doctorName
+    @Override
+    public void send(List<Appointment> batch) throws IOException {
+        try (FileWriter writer = new FileWriter(filename, true)) {
+            for (Appointment a : batch) {
+                String line =
+                        String.format("%04d", a.getAppointmentId()) + "," +
+                                a.getDate().toString() + "," +
+                                a.getTime() + "," +
+                                a.getPatient().getName() + "," +
+                                a.getPatient().getPhone() + "," +
+                                a.getDoctor().getName();
+
+                writer.write(line + System.lineSeparator());
+            }
+        }
+    }
+}
@@ -109,6 +109,17 @@ public class Main {
         system.saveToFile("patients.txt");
         system.saveAppointmentsToFile("appointments.txt");
 
+        //Lazy startup: index the saved file, then time the first lookup
+        ClinicManagementSystem restarted = new ClinicManagementSystem();
+        long startNanos = System.nanoTime();
+        restarted.loadFromFileLazily("patients.txt", 10000, 100);
+        long indexedNanos = System.nanoTime();
+        restarted.findPatient(patient1.getPatientId());
+        long firstLookupNanos = System.nanoTime();
+
+        System.out.println("Lazy startup: " + (indexedNanos - startNanos) / 1000 + " us, first lookup: "
+                + (firstLookupNanos - indexedNanos) / 1000 + " us");
+
         System.out.println("\n PATIENT REPORT ");
         system.generatePatientReport(patient1.getPatientId());
 
@@ -20,6 +20,9 @@ public class Patient extends Person {
     // List of recorded allergies for this patient
     private ArrayList<String> allergies;
 
+    // Receives a change event from each setter (null when no event stream is attached)
+    private ClinicEventPublisher events;
+
     // Constructor
     public Patient(int patientId, String name, String email, String phone, String address, String gender, LocalDate dateOfBirth, String emergencyContact) {
 
@@ -57,6 +60,13 @@ public class Patient extends Person {
     // Updates the patient's status
     public void setStatus(String status) {
         this.status = status;
+        if (events != null) {
+            events.publish("PatientStatusChanged", patientId, status);
+        }
+    }
+
+    public void setEventPublisher(ClinicEventPublisher events) {
+        this.events = events;
     }
 
     // Adds a medical record to the patient's history
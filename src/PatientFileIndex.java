@@ -0,0 +1,338 @@
+// Class: PatientFileIndex
+// Lazy view of a patients file: only an ID -> line offset index is built at startup,
+// Patient objects are created on first access and kept in a bounded resident set.
+// Patients holding state that is not in the file (records, appointments...) are pinned and never evicted
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PatientFileIndex implements Closeable {
+
+    // The patients file, read a line at a time at the indexed offsets. Neither mapped nor copied
+    // into the heap: a mapping keeps the file locked on Windows until it is garbage collected,
+    // and a channel from FileChannel.open still lets saveToFile replace the file
+    private FileChannel channel;
+
+    // Sorted patient IDs and the matching line start offsets in the file
+    private int[] ids;
+    private long[] offsets;
+    private int size;
+
+    // Materialized patients, least recently used first
+    private LinkedHashMap<Integer, Patient> resident;
+    private int maxResident;
+
+    // Patients that must keep their object (changed or referenced); not counted against maxResident
+    private HashMap<Integer, Patient> pinned;
+
+    // Constructor: indexes the ID at the start of every line of the file
+    public PatientFileIndex(String filename, int maxResident) throws IOException {
+        this.maxResident = maxResident;
+        this.pinned = new HashMap<>();
+        this.resident = new LinkedHashMap<Integer, Patient>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Patient> eldest) {
+                if (size() <= PatientFileIndex.this.maxResident) {
+                    return false;
+                }
+                // Dropping a changed patient would lose state the file cannot give back
+                if (hasUnsavedState(eldest.getValue())) {
+                    pinned.put(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        };
+
+        reindex(filename);
+    }
+
+    // Indexes the file again (e.g. after it was rewritten by a save). Only the line index is
+    // rebuilt; resident and pinned Patient objects are kept, so their unsaved state survives
+    public synchronized void reindex(String filename) throws IOException {
+        FileChannel old = channel;
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+
+        ids = new int[64];
+        offsets = new long[64];
+        size = 0;
+        buildIndex();
+
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    // Reads the file once in blocks, noting only the leading "0001," ID of each line
+    private void buildIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        byte[] bytes = buffer.array();
+
+        long filePos = 0;
+        long lineStart = 0;
+        int id = 0;
+        boolean hasId = false;
+        boolean inId = true;
+        boolean validLine = false;
+
+        int n;
+        while ((n = channel.read(buffer, filePos)) > 0) {
+            for (int i = 0; i < n; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    if (validLine) {
+                        addLine(id, lineStart);
+                    }
+                    lineStart = filePos + i + 1;
+                    id = 0;
+                    hasId = false;
+                    inId = true;
+                    validLine = false;
+                } else if (inId) {
+                    if (b >= '0' && b <= '9') {
+                        id = id * 10 + (b - '0');
+                        hasId = true;
+                    } else {
+                        validLine = hasId && b == ',';
+                        inId = false;
+                    }
+                }
+            }
+            filePos += n;
+            buffer.clear();
+        }
+        // Last line without a line break
+        if (validLine) {
+            addLine(id, lineStart);
+        }
+
+        for (int i = 1; i < size; i++) {
+            if (ids[i] < ids[i - 1]) {
+                sortById();
+                break;
+            }
+        }
+    }
+
+    private void addLine(int id, long offset) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        ids[size] = id;
+        offsets[size] = offset;
+        size++;
+    }
+
+    // Sorts both arrays by ID (only needed when the file was not written in ID order)
+    private void sortById() {
+        long[] pairs = new long[size];
+        for (int i = 0; i < size; i++) {
+            pairs[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(pairs);
+
+        int[] sortedIds = new int[size];
+        long[] sortedOffsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = (int) (pairs[i] >>> 32);
+            sortedOffsets[i] = offsets[(int) pairs[i]];
+        }
+        ids = sortedIds;
+        offsets = sortedOffsets;
+    }
+
+    // Returns the Patient for the ID, creating it from the file on first access, or null if no match
+    public synchronized Patient get(int patientId) {
+        Patient p = pinned.get(patientId);
+        if (p == null) {
+            p = resident.get(patientId);
+        }
+        if (p != null) {
+            return p;
+        }
+
+        int slot = Arrays.binarySearch(ids, 0, size, patientId);
+        if (slot < 0) {
+            return null;
+        }
+        try {
+            p = parseLine(readLine(offsets[slot]));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The patient file could not be read", e);
+        }
+        if (p != null) {
+            resident.put(patientId, p);
+        }
+        return p;
+    }
+
+    // Keeps the patient's object for good, e.g. once an Appointment refers to it.
+    // Returns the pinned Patient, or null if no match
+    public synchronized Patient pin(int patientId) {
+        Patient p = get(patientId);
+        if (p != null) {
+            resident.remove(patientId);
+            pinned.put(patientId, p);
+        }
+        return p;
+    }
+
+    // True if the patient has anything the CSV line does not hold
+    private static boolean hasUnsavedState(Patient p) {
+        return !p.getStatus().equals("Active")
+                || !p.getMedicalHistory().isEmpty()
+                || !p.getAppointments().isEmpty()
+                || (p.getAllergies() != null && !p.getAllergies().isEmpty());
+    }
+
+    // Returns true if the file holds a patient with this ID (does not create the Patient)
+    public synchronized boolean contains(int patientId) {
+        return Arrays.binarySearch(ids, 0, size, patientId) >= 0;
+    }
+
+    // Number of patients in the file
+    public synchronized int size() {
+        return size;
+    }
+
+    // The i-th patient ID in ascending order
+    public synchronized int idAt(int i) {
+        return ids[i];
+    }
+
+    // Largest ID in the file, or 0 if the file is empty
+    public synchronized int maxId() {
+        return size == 0 ? 0 : ids[size - 1];
+    }
+
+    // Returns the raw CSV line for a patient without creating the Patient, or null if no match
+    public synchronized String getLine(int patientId) throws IOException {
+        int slot = Arrays.binarySearch(ids, 0, size, patientId);
+        if (slot < 0) {
+            return null;
+        }
+        return readLine(offsets[slot]);
+    }
+
+    // Writes the IDs of the patients in memory, least recently used first, so the next
+    // lazy start can warm up the patients that were actually in use
+    public synchronized void saveRecentIds(String filename) throws IOException {
+        try (FileWriter writer = new FileWriter(filename)) {
+            for (Integer id : pinned.keySet()) {
+                writer.write(id + System.lineSeparator());
+            }
+            for (Integer id : resident.keySet()) {
+                writer.write(id + System.lineSeparator());
+            }
+        }
+    }
+
+    // Preloads up to count patients on a background thread: the most recently used ones listed
+    // in recentFile (written by saveRecentIds), or, if there is no such file, the highest IDs.
+    // The highest IDs are the most recently registered patients, not necessarily the most active
+    public Thread startWarmUp(int count, String recentFile) {
+        Thread warmUp = new Thread(() -> {
+            int limit = Math.min(count, maxResident);
+            List<Integer> recent = readRecentIds(recentFile);
+            if (recent != null) {
+                // Oldest first, so the most recently used end up most recently used again
+                for (int id : recent.subList(Math.max(0, recent.size() - limit), recent.size())) {
+                    get(id);
+                }
+                return;
+            }
+            int stop = Math.max(0, size() - limit);
+            for (int i = size() - 1; i >= stop; i--) {
+                get(idAt(i));
+            }
+        }, "patient-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+        return warmUp;
+    }
+
+    // Returns the IDs in a recent-patients file, or null if there is none or it cannot be read
+    private static List<Integer> readRecentIds(String filename) {
+        if (filename == null || !new File(filename).exists()) {
+            return null;
+        }
+        try {
+            ArrayList<Integer> recent = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(filename))) {
+                if (!line.trim().isEmpty()) {
+                    recent.add(Integer.parseInt(line.trim()));
+                }
+            }
+            return recent;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Skipping recent patients file " + filename + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Reads one line (without the line break) at the given offset, growing the buffer for long lines
+    private String readLine(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        int scanned = 0;
+        while (true) {
+            int n = channel.read(buffer, offset + buffer.position());
+            byte[] bytes = buffer.array();
+            for (; scanned < buffer.position(); scanned++) {
+                if (bytes[scanned] == '\n' || bytes[scanned] == '\r') {
+                    return new String(bytes, 0, scanned, StandardCharsets.UTF_8);
+                }
+            }
+            if (n < 0) {
+                return new String(bytes, 0, scanned, StandardCharsets.UTF_8);
+            }
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    // Releases the file
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // CSV format:
+    // id,name,email,phone,address,gender,dateOfBirth,emergencyContact
+    private static Patient parseLine(String line) {
+        String[] parts = line.trim().split(",");
+        if (parts.length < 8) {
+            System.out.println("Skipping bad line: " + line);
+            return null;
+        }
+        return new Patient(
+                Integer.parseInt(parts[0]),
+                parts[1],
+                parts[2],
+                parts[3],
+                parts[4],
+                parts[5],
+                LocalDate.parse(parts[6]),
+                parts[7]
+        );
+    }
+}
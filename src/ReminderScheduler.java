@@ -0,0 +1,263 @@
+// Class: ReminderScheduler
+// Holds pending appointment reminders in a hashed timing wheel and sends the due ones in batches.
+// Reminders are stored in plain int arrays (no object per reminder), so millions fit in a few MB
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+public class ReminderScheduler {
+
+    // One wheel bucket per minute; a reminder further ahead than one turn waits for its due minute
+    private static final int WHEEL_SIZE = 4096;
+
+    // Reminder nodes: appointment ID, due minute (minutes since 1970) and bucket list links
+    private int[] nodeAppointment;
+    private int[] nodeDue;
+    private int[] nodeNext;
+    private int[] nodePrev;
+    private int freeNode;
+    private int usedNodes;
+
+    // First node of each bucket's list, or -1
+    private int[] bucketHead;
+
+    // Node holding each appointment's reminder, indexed by appointment ID (-1 when none)
+    private int[] nodeOfAppointment;
+
+    // Last minute already processed
+    private int currentMinute;
+
+    // How long before the appointment the reminder is sent
+    private Duration lead;
+
+    // Looks appointments up by ID when their reminders are sent
+    private IntFunction<Appointment> lookup;
+
+    private ReminderSink sink;
+    private int batchSize;
+    private int maxBatchesPerSecond;
+
+    // Constructor: maxBatchesPerSecond of 0 means no rate limit
+    public ReminderScheduler(IntFunction<Appointment> lookup, ReminderSink sink, Duration lead,
+                             int batchSize, int maxBatchesPerSecond, LocalDateTime now) {
+        this.lookup = lookup;
+        this.sink = sink;
+        this.lead = lead;
+        this.batchSize = batchSize;
+        this.maxBatchesPerSecond = maxBatchesPerSecond;
+        this.currentMinute = toMinute(now);
+
+        nodeAppointment = new int[1024];
+        nodeDue = new int[1024];
+        nodeNext = new int[1024];
+        nodePrev = new int[1024];
+        freeNode = -1;
+        usedNodes = 0;
+
+        bucketHead = new int[WHEEL_SIZE];
+        Arrays.fill(bucketHead, -1);
+
+        nodeOfAppointment = new int[1024];
+        Arrays.fill(nodeOfAppointment, -1);
+    }
+
+    // Adds or moves the appointment's reminder (O(1)). Visits already past get no reminder;
+    // a visit closer than the lead time gets a late reminder on the next tick
+    public synchronized void schedule(Appointment appointment) {
+        int appointmentId = appointment.getAppointmentId();
+        cancel(appointmentId);
+
+        int visitMinute = toMinute(appointment.getDateTime());
+        if (visitMinute <= currentMinute) {
+            return;
+        }
+        int due = Math.max(toMinute(appointment.getDateTime().minus(lead)), currentMinute + 1);
+        insert(appointmentId, due);
+    }
+
+    // Puts a reminder on the wheel and records its node
+    private void insert(int appointmentId, int due) {
+        int node = allocateNode();
+        nodeAppointment[node] = appointmentId;
+        nodeDue[node] = due;
+        link(node, due & (WHEEL_SIZE - 1));
+
+        if (appointmentId >= nodeOfAppointment.length) {
+            int oldLength = nodeOfAppointment.length;
+            nodeOfAppointment = Arrays.copyOf(nodeOfAppointment, Math.max(appointmentId + 1, oldLength * 2));
+            Arrays.fill(nodeOfAppointment, oldLength, nodeOfAppointment.length, -1);
+        }
+        nodeOfAppointment[appointmentId] = node;
+    }
+
+    // Drops the appointment's pending reminder, if any (O(1))
+    public synchronized void cancel(int appointmentId) {
+        if (appointmentId < 0 || appointmentId >= nodeOfAppointment.length) {
+            return;
+        }
+        int node = nodeOfAppointment[appointmentId];
+        if (node < 0) {
+            return;
+        }
+        unlink(node, nodeDue[node] & (WHEEL_SIZE - 1));
+        releaseNode(node);
+        nodeOfAppointment[appointmentId] = -1;
+    }
+
+    // Number of reminders waiting to be sent
+    public synchronized int pending() {
+        return usedNodes;
+    }
+
+    // Sends every reminder due up to now, in batches. Returns how many reminders were sent.
+    // If the sink fails, the reminders not yet accepted go back on the wheel for the next call
+    public int advanceTo(LocalDateTime now) throws IOException {
+        int[] dueIds = collectDue(toMinute(now));
+
+        ArrayList<Appointment> batch = new ArrayList<>();
+        int batchStart = 0;
+        int sent = 0;
+        for (int i = 0; i < dueIds.length; i++) {
+            Appointment a = lookup.apply(dueIds[i]);
+            // A reminder reached only after its visit (e.g. after downtime or a failed send) is dropped
+            if (a == null || !a.getStatus().equals("Scheduled") || a.getDateTime().isBefore(now)) {
+                continue;
+            }
+            if (batch.isEmpty()) {
+                batchStart = i;
+            }
+            batch.add(a);
+            if (batch.size() == batchSize) {
+                sent += emitOrRequeue(batch, dueIds, batchStart, sent > 0);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            sent += emitOrRequeue(batch, dueIds, batchStart, sent > 0);
+        }
+        return sent;
+    }
+
+    // Sends one batch; on failure requeues it and every reminder after it, then rethrows
+    private int emitOrRequeue(ArrayList<Appointment> batch, int[] dueIds, int batchStart, boolean throttle)
+            throws IOException {
+        try {
+            return emit(batch, throttle);
+        } catch (IOException | RuntimeException e) {
+            requeue(dueIds, batchStart);
+            throw e;
+        }
+    }
+
+    // Puts unsent reminders back so the next tick retries them, unless they were rescheduled meanwhile
+    private synchronized void requeue(int[] dueIds, int from) {
+        for (int i = from; i < dueIds.length; i++) {
+            int appointmentId = dueIds[i];
+            if (nodeOfAppointment[appointmentId] < 0) {
+                insert(appointmentId, currentMinute + 1);
+            }
+        }
+    }
+
+    // Removes the reminders due by the given minute and returns their appointment IDs
+    private synchronized int[] collectDue(int nowMinute) {
+        int[] dueIds = new int[16];
+        int count = 0;
+
+        // After a long pause every bucket may hold due reminders, so walk the whole wheel once
+        int ticks = (int) Math.min((long) nowMinute - currentMinute, WHEEL_SIZE);
+        for (int t = 1; t <= ticks; t++) {
+            int bucket = (currentMinute + t) & (WHEEL_SIZE - 1);
+            int node = bucketHead[bucket];
+            while (node >= 0) {
+                int next = nodeNext[node];
+                if (nodeDue[node] <= nowMinute) {
+                    if (count == dueIds.length) {
+                        dueIds = Arrays.copyOf(dueIds, count * 2);
+                    }
+                    dueIds[count++] = nodeAppointment[node];
+                    nodeOfAppointment[nodeAppointment[node]] = -1;
+                    unlink(node, bucket);
+                    releaseNode(node);
+                }
+                node = next;
+            }
+        }
+        if (nowMinute > currentMinute) {
+            currentMinute = nowMinute;
+        }
+        return Arrays.copyOf(dueIds, count);
+    }
+
+    // Hands one batch to the sink, waiting first if needed to stay under the rate limit
+    private int emit(ArrayList<Appointment> batch, boolean throttle) throws IOException {
+        if (throttle && maxBatchesPerSecond > 0) {
+            try {
+                Thread.sleep(1000L / maxBatchesPerSecond);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending reminders", e);
+            }
+        }
+        sink.send(batch);
+        return batch.size();
+    }
+
+    private int allocateNode() {
+        int node;
+        if (freeNode >= 0) {
+            node = freeNode;
+            freeNode = nodeNext[node];
+        } else {
+            node = usedNodes;
+            if (node == nodeAppointment.length) {
+                int newLength = node * 2;
+                nodeAppointment = Arrays.copyOf(nodeAppointment, newLength);
+                nodeDue = Arrays.copyOf(nodeDue, newLength);
+                nodeNext = Arrays.copyOf(nodeNext, newLength);
+                nodePrev = Arrays.copyOf(nodePrev, newLength);
+            }
+        }
+        usedNodes++;
+        return node;
+    }
+
+    // Freed nodes are chained through nodeNext and reused first
+    private void releaseNode(int node) {
+        nodeNext[node] = freeNode;
+        freeNode = node;
+        usedNodes--;
+    }
+
+    private void link(int node, int bucket) {
+        int head = bucketHead[bucket];
+        nodePrev[node] = -1;
+        nodeNext[node] = head;
+        if (head >= 0) {
+            nodePrev[head] = node;
+        }
+        bucketHead[bucket] = node;
+    }
+
+    private void unlink(int node, int bucket) {
+        int prev = nodePrev[node];
+        int next = nodeNext[node];
+        if (prev >= 0) {
+            nodeNext[prev] = next;
+        } else {
+            bucketHead[bucket] = next;
+        }
+        if (next >= 0) {
+            nodePrev[next] = prev;
+        }
+    }
+
+    private static int toMinute(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+}
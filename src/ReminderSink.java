@@ -0,0 +1,8 @@
+// Interface: ReminderSink
+// Receives appointment reminders in batches (a file, SMS gateway, e-mail service...)
+
+import java.util.List;
+
+public interface ReminderSink {
+    void send(List<Appointment> batch) throws java.io.IOException;
+}
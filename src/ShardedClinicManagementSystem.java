@@ -0,0 +1,350 @@
+// Class: ShardedClinicManagementSystem
+// Splits the clinic across branches: each branch (shard) is its own ClinicManagementSystem
+// holding that branch's doctors and appointments, while patient and doctor IDs stay global
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ShardedClinicManagementSystem implements FileOperations, ReportGenerator {
+
+    // Branch used when no branch is given and none can be read from the hospital room
+    public static final String DEFAULT_BRANCH = "Main";
+
+    // Maps a branch ID (key) to the ClinicManagementSystem holding that branch's data (value)
+    private TreeMap<String, ClinicManagementSystem> shards;
+
+    // Global ID directories: which branch a patient was registered at / a doctor works at
+    private HashMap<Integer, String> patientBranches;
+    private HashMap<Integer, String> doctorBranches;
+
+    // Global ID counters, so IDs never clash between branches
+    private int nextPatientId;
+    private int nextDoctorId;
+    private int nextAppointmentId;
+
+    // Runs per-branch work (cross-branch queries, save and load) in parallel
+    private ForkJoinPool pool;
+
+    // Constructor: starts with just the default branch
+    public ShardedClinicManagementSystem() {
+        shards = new TreeMap<>();
+        patientBranches = new HashMap<>();
+        doctorBranches = new HashMap<>();
+        pool = ForkJoinPool.commonPool();
+
+        nextPatientId = 1;
+        nextDoctorId = 1;
+        nextAppointmentId = 1;
+
+        addBranch(DEFAULT_BRANCH);
+    }
+
+    // Creates the branch if it does not exist yet and returns its system
+    public ClinicManagementSystem addBranch(String branchId) {
+        ClinicManagementSystem shard = shards.get(branchId);
+        if (shard == null) {
+            shard = new ClinicManagementSystem();
+            shards.put(branchId, shard);
+        }
+        return shard;
+    }
+
+    // Returns the system for a branch, or null if the branch is unknown
+    public ClinicManagementSystem getBranch(String branchId) {
+        return shards.get(branchId);
+    }
+
+    public List<String> getBranchIds() {
+        return new ArrayList<>(shards.keySet());
+    }
+
+    // Reads the branch from a hospital room written as "Branch/Room" (e.g. "Kumasi/Theatre 1")
+    public static String branchOf(String hospitalRoom) {
+        if (hospitalRoom != null) {
+            int slash = hospitalRoom.indexOf('/');
+            if (slash > 0) {
+                return hospitalRoom.substring(0, slash).trim();
+            }
+        }
+        return DEFAULT_BRANCH;
+    }
+
+    // Registers the patient at the default branch
+    public Patient addPatient(String name, String email, String phone, String address, String gender, LocalDate dateOfBirth, String emergencyContact) {
+        return addPatient(DEFAULT_BRANCH, name, email, phone, address, gender, dateOfBirth, emergencyContact);
+    }
+
+    // Registers the patient at the given branch under a globally unique ID
+    public Patient addPatient(String branchId, String name, String email, String phone, String address, String gender, LocalDate dateOfBirth, String emergencyContact) {
+        int id = nextPatientId;
+        Patient patient = new Patient(id, name, email, phone, address, gender, dateOfBirth, emergencyContact);
+        addBranch(branchId).registerPatient(patient);
+        patientBranches.put(id, branchId);
+        nextPatientId++;
+        return patient;
+    }
+
+    // Looks the patient up through the global directory, or returns null if no match
+    public Patient findPatient(int patientId) {
+        String branchId = patientBranches.get(patientId);
+        if (branchId == null) {
+            return null;
+        }
+        return shards.get(branchId).findPatient(patientId);
+    }
+
+    // Places the doctor at the branch named in their hospital room
+    public Doctor addDoctor(String specialisation, int yearsOfExperience, String hospitalRoom, String availabilitySchedule,
+                            String name, String email, String phone, String address, String gender, LocalDate dateOfBirth, String emergencyContact) {
+        return addDoctor(branchOf(hospitalRoom), specialisation, yearsOfExperience, hospitalRoom, availabilitySchedule,
+                name, email, phone, address, gender, dateOfBirth, emergencyContact);
+    }
+
+    // Places the doctor at the given branch under a globally unique ID
+    public Doctor addDoctor(String branchId, String specialisation, int yearsOfExperience, String hospitalRoom, String availabilitySchedule,
+                            String name, String email, String phone, String address, String gender, LocalDate dateOfBirth, String emergencyContact) {
+        int docId = nextDoctorId;
+        Doctor doctor = new Doctor(docId, name, email, phone, address, gender, dateOfBirth, emergencyContact,
+                specialisation, yearsOfExperience, hospitalRoom, availabilitySchedule);
+        addBranch(branchId).registerDoctor(doctor);
+        doctorBranches.put(docId, branchId);
+        nextDoctorId++;
+        return doctor;
+    }
+
+    // Returns the Doctor object if found, or null otherwise
+    public Doctor findDoctor(int doctorId) {
+        String branchId = doctorBranches.get(doctorId);
+        if (branchId == null) {
+            return null;
+        }
+        return shards.get(branchId).findDoctor(doctorId);
+    }
+
+    // Books the appointment at the doctor's branch.
+    // Returns the created Appointment object, or null if patient/doctor is not found
+    public Appointment scheduleAppointment(int patientId,
+                                           int doctorId,
+                                           LocalDate date,
+                                           String time,
+                                           String reason) {
+
+        Patient patient = findPatient(patientId);
+        String branchId = doctorBranches.get(doctorId);
+
+        if (patient == null || branchId == null) {
+            // Either the patient or doctor does not exist
+            return null;
+        }
+
+        ClinicManagementSystem shard = shards.get(branchId);
+
+        // A patient from another branch is known to this branch as a visitor: the same Patient object,
+        // saved only with their home branch
+        if (shard.findPatient(patientId) == null) {
+            shard.registerVisitor(patient);
+        }
+
+        Appointment appointment = new Appointment(nextAppointmentId, time, reason, patient, shard.findDoctor(doctorId), date, "Scheduled");
+        shard.registerAppointment(appointment);
+        nextAppointmentId++;
+        return appointment;
+    }
+
+    // Collects a day's appointments from every branch in parallel, ordered by time
+    public ArrayList<Appointment> getAppointmentsOnDate(String date) {
+        ArrayList<Callable<ArrayList<Appointment>>> tasks = new ArrayList<>();
+        for (ClinicManagementSystem shard : shards.values()) {
+            tasks.add(() -> shard.getAppointmentsOnDate(date));
+        }
+
+        ArrayList<Appointment> agenda = new ArrayList<>();
+        for (Future<ArrayList<Appointment>> result : pool.invokeAll(tasks)) {
+            agenda.addAll(join(result));
+        }
+        agenda.sort(Comparator.comparing(a -> Appointment.parseTime(a.getTime())));
+        return agenda;
+    }
+
+    // Each branch saves its patients to its own file, e.g. "patients.txt" -> "patients-Kumasi.txt"
+    @Override
+    public void saveToFile(String filename) throws IOException {
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (String branchId : shards.keySet()) {
+            ClinicManagementSystem shard = shards.get(branchId);
+            String branchFile = branchFileName(filename, branchId);
+            tasks.add(() -> {
+                shard.saveToFile(branchFile);
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+
+    // Each branch saves its appointments to its own file
+    public void saveAppointmentsToFile(String filename) throws IOException {
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (String branchId : shards.keySet()) {
+            ClinicManagementSystem shard = shards.get(branchId);
+            String branchFile = branchFileName(filename, branchId);
+            tasks.add(() -> {
+                shard.saveAppointmentsToFile(branchFile);
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+
+    // Finds the branch files on disk ("patients-*.txt"), then loads each branch's patients in parallel
+    // and rebuilds the global patient directory. Known branches without a file are left as they are.
+    // Visitors are only saved with their home branch, so each patient is found in one file
+    @Override
+    public void loadFromFile(String filename) throws IOException {
+        for (String branchId : discoverBranches(filename)) {
+            addBranch(branchId);
+        }
+
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (String branchId : shards.keySet()) {
+            ClinicManagementSystem shard = shards.get(branchId);
+            String branchFile = branchFileName(filename, branchId);
+            if (!Files.exists(Paths.get(branchFile))) {
+                continue;
+            }
+            tasks.add(() -> {
+                shard.loadFromFile(branchFile);
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        patientBranches.clear();
+        nextPatientId = 1;
+        for (String branchId : shards.keySet()) {
+            for (Patient p : shards.get(branchId).getPatients()) {
+                patientBranches.putIfAbsent(p.getPatientId(), branchId);
+
+                // Keep nextPatientId ahead of the largest id we see
+                if (p.getPatientId() >= nextPatientId) {
+                    nextPatientId = p.getPatientId() + 1;
+                }
+            }
+        }
+    }
+
+    // Generate a summary/report for a specific patient, wherever they are registered
+    @Override
+    public void generatePatientReport(int patientId) {
+        String branchId = patientBranches.get(patientId);
+        if (branchId == null) {
+            String idFormatted = String.format("%04d", patientId);
+            System.out.println("No patient found with ID: " + idFormatted);
+            return;
+        }
+        shards.get(branchId).generatePatientReport(patientId);
+    }
+
+    // Generate a report of a day's appointments across all branches
+    @Override
+    public void generateAppointmentReport(String date) {
+        date = ClinicManagementSystem.normalizeDate(date);
+        ArrayList<Appointment> agenda = getAppointmentsOnDate(date);
+
+        if (agenda.isEmpty()) {
+            System.out.println("No appointments on " + date);
+            return;
+        }
+
+        System.out.println("===== APPOINTMENTS ON " + date + " (ALL BRANCHES) =====");
+        for (Appointment a : agenda) {
+            String idFormatted = String.format("%04d", a.getAppointmentId());
+            System.out.println(
+                    "ID: " + idFormatted +
+                            ", Branch: " + doctorBranches.get(a.getDoctor().getDoctorId()) +
+                            ", Time: " + a.getTime() +
+                            ", Patient: " + a.getPatient().getName() +
+                            ", Doctor: " + a.getDoctor().getName() +
+                            ", Reason: " + a.getReason() +
+                            ", Status: " + a.getStatus()
+            );
+        }
+        System.out.println("=====================================");
+    }
+
+    // Inserts the branch before the extension: "patients.txt" -> "patients-Kumasi.txt"
+    public static String branchFileName(String filename, String branchId) {
+        int dot = filename.lastIndexOf('.');
+        if (dot <= 0) {
+            return filename + "-" + branchId;
+        }
+        return filename.substring(0, dot) + "-" + branchId + filename.substring(dot);
+    }
+
+    // Returns the branch IDs that have a file next to the given name, e.g. "Kumasi" for "patients-Kumasi.txt"
+    public static ArrayList<String> discoverBranches(String filename) throws IOException {
+        Path path = Paths.get(filename).toAbsolutePath();
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String prefix = (dot <= 0 ? name : name.substring(0, dot)) + "-";
+        String suffix = dot <= 0 ? "" : name.substring(dot);
+
+        ArrayList<String> branches = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent())) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (fileName.length() > prefix.length() + suffix.length()
+                        && fileName.startsWith(prefix) && fileName.endsWith(suffix)) {
+                    branches.add(fileName.substring(prefix.length(), fileName.length() - suffix.length()));
+                }
+            }
+        }
+        return branches;
+    }
+
+    // Runs the per-branch file tasks in parallel and rethrows the first IOException
+    private void runAll(ArrayList<Callable<Void>> tasks) throws IOException {
+        IOException failure = null;
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while saving or loading branches", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Waits for a parallel query result
+    private static <T> T join(Future<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+// Class: Waitlist
+// Priority queues of waiting patients, one per doctor ("doctor:3") or specialisation ("specialisation:Pediatrician").
+// A patient may wait in several queues; once one of their entries is taken, the others are withdrawn
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+public class Waitlist {
+
+    // Each key has its own queue, locked on the queue itself, so busy doctors do not hold up the others
+    private ConcurrentHashMap<String, PriorityQueue<WaitlistEntry>> queues;
+
+    // Global arrival counter shared by all queues
+    private AtomicLong arrivals;
+
+    // Each waiting patient's live entries and the queue each one is in, by patient ID.
+    // An entry missing here was withdrawn and is dropped when its queue next reaches it
+    private ConcurrentHashMap<Integer, ConcurrentHashMap<WaitlistEntry, String>> waiting;
+
+    // Constructor
+    public Waitlist() {
+        queues = new ConcurrentHashMap<>();
+        arrivals = new AtomicLong();
+        waiting = new ConcurrentHashMap<>();
+    }
+
+    public static String doctorKey(int doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    public static String specialisationKey(String specialisation) {
+        return "specialisation:" + specialisation;
+    }
+
+    // Adds the patient to the queue for the key and returns their entry
+    public WaitlistEntry add(String key, Patient patient, int urgency, String reason) {
+        WaitlistEntry entry = new WaitlistEntry(patient, urgency, arrivals.incrementAndGet(), reason);
+        // Recorded as live before it is queued, so a concurrent poll never mistakes it for withdrawn
+        waiting.computeIfAbsent(patient.getPatientId(), id -> new ConcurrentHashMap<>()).put(entry, key);
+        PriorityQueue<WaitlistEntry> queue = queues.computeIfAbsent(key, k -> new PriorityQueue<>());
+        synchronized (queue) {
+            queue.add(entry);
+        }
+        return entry;
+    }
+
+    // Returns the most urgent entry for the key without removing it, or null if nobody is waiting
+    public WaitlistEntry peek(String key) {
+        PriorityQueue<WaitlistEntry> queue = queues.get(key);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            WaitlistEntry head;
+            while ((head = queue.peek()) != null && !isLive(head)) {
+                queue.poll();
+            }
+            return head;
+        }
+    }
+
+    // Removes and returns the most urgent entry that passes the check, or null if none does, and
+    // withdraws the patient's entries in other queues. Entries that fail the check keep their place.
+    // The queue stays locked while it is searched, so other callers never see it empty while skipped
+    // entries are set aside; the other queues are only locked afterwards, one at a time
+    public WaitlistEntry pollEligible(String key, Predicate<WaitlistEntry> eligible) {
+        PriorityQueue<WaitlistEntry> queue = queues.get(key);
+        if (queue == null) {
+            return null;
+        }
+
+        WaitlistEntry found = null;
+        Map<WaitlistEntry, String> withdrawn = null;
+        synchronized (queue) {
+            ArrayList<WaitlistEntry> skipped = new ArrayList<>();
+            WaitlistEntry entry;
+            while ((entry = queue.poll()) != null) {
+                if (!isLive(entry)) {
+                    continue;
+                }
+                if (eligible.test(entry)) {
+                    // Another queue may have taken the same patient in the meantime
+                    withdrawn = claim(entry);
+                    if (withdrawn != null) {
+                        found = entry;
+                        break;
+                    }
+                    continue;
+                }
+                skipped.add(entry);
+            }
+            queue.addAll(skipped);
+        }
+
+        if (withdrawn != null) {
+            for (Map.Entry<WaitlistEntry, String> other : withdrawn.entrySet()) {
+                if (other.getKey() != found) {
+                    removeQueued(other.getValue(), other.getKey());
+                }
+            }
+        }
+        return found;
+    }
+
+    // Takes all of the entry's patient's live entries at once. Returns them, or null if the
+    // entry was already withdrawn, so only one queue can ever hand out a given patient
+    private Map<WaitlistEntry, String> claim(WaitlistEntry entry) {
+        ArrayList<Map<WaitlistEntry, String>> taken = new ArrayList<>(1);
+        waiting.computeIfPresent(entry.getPatient().getPatientId(), (id, entries) -> {
+            if (!entries.containsKey(entry)) {
+                return entries;
+            }
+            taken.add(entries);
+            return null;
+        });
+        return taken.isEmpty() ? null : taken.get(0);
+    }
+
+    private boolean isLive(WaitlistEntry entry) {
+        Map<WaitlistEntry, String> entries = waiting.get(entry.getPatient().getPatientId());
+        return entries != null && entries.containsKey(entry);
+    }
+
+    // Removes a patient's entry (e.g. they left or were booked elsewhere)
+    public boolean remove(String key, WaitlistEntry entry) {
+        waiting.computeIfPresent(entry.getPatient().getPatientId(), (id, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+        return removeQueued(key, entry);
+    }
+
+    private boolean removeQueued(String key, WaitlistEntry entry) {
+        PriorityQueue<WaitlistEntry> queue = queues.get(key);
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            return queue.remove(entry);
+        }
+    }
+
+    // Number of patients waiting for the key
+    public int size(String key) {
+        PriorityQueue<WaitlistEntry> queue = queues.get(key);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            queue.removeIf(entry -> !isLive(entry));
+            return queue.size();
+        }
+    }
+}
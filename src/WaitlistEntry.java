@@ -0,0 +1,61 @@
+// Class: WaitlistEntry
+// One patient waiting for a slot with a doctor or a specialisation (including walk-ins)
+
+import java.time.LocalDateTime;
+
+public class WaitlistEntry implements Comparable<WaitlistEntry> {
+    // The waiting patient
+    private Patient patient;
+
+    // Triage urgency: higher numbers are seen first
+    private int urgency;
+
+    // Arrival order, used to break ties between equally urgent patients
+    private long arrival;
+
+    // Stores reason for visiting
+    private String reason;
+
+    // When the patient joined the waitlist
+    private LocalDateTime joinedAt;
+
+    //Constructor
+    public WaitlistEntry(Patient patient, int urgency, long arrival, String reason) {
+        this.patient = patient;
+        this.urgency = urgency;
+        this.arrival = arrival;
+        this.reason = reason;
+        this.joinedAt = LocalDateTime.now();
+    }
+
+    //Accessor or getter methods
+    public Patient getPatient() {
+        return patient;
+    }
+    public int getUrgency() {
+        return urgency;
+    }
+    public long getArrival() {
+        return arrival;
+    }
+    public String getReason() {
+        return reason;
+    }
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    // Most urgent first, then first come first served
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        if (urgency != other.urgency) {
+            return Integer.compare(other.urgency, urgency);
+        }
+        return Long.compare(arrival, other.arrival);
+    }
+
+    @Override
+    public String toString() {
+        return patient.getPatientId() + "," + patient.getName() + "," + urgency + "," + reason;
+    }
+}